@@ -0,0 +1,555 @@
+package ie.atu.sw;
+
+import java.io.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * @author Peter Carroll
+ * @version 1.0
+ * @since 1.8
+ *
+ * LoadHarness runs the whole simplifier under sustained load and writes a
+ * JSON report that can be diffed between releases.
+ *
+ * It:
+ * 1) Generates synthetic embeddings, a target word list and Zipf-distributed
+ *    documents (see SyntheticCorpus),
+ * 2) Loads them through the normal EmbeddingParser / GoogleWordsManager path,
+ * 3) Drives each mode for a fixed time:
+ *    - "file"   : TextSimplifier.simplifyTextFile, one output file per thread,
+ *    - "engine" : SimplifierEngine.simplify(CharSequence), all threads sharing one engine,
+ *    Each mode gets its own newly built vocabulary and engine, so it starts
+ *    with an empty replacement cache like a freshly started service.
+ * 4) Reports throughput, p50/p99/p999 latency, allocation rate, GC count/time,
+ *    heap use and replacement cache size sampled over the run.
+ *
+ * With text=fresh (the default) every operation simplifies newly generated
+ * Zipf text, so rare words keep arriving and the cache keeps growing as it
+ * would in production. With text=fixed the threads cycle through 'documents'
+ * pre-generated documents, which soon stops exercising the similarity search.
+ * Generating (and, in file mode, writing) the fresh text is not included in
+ * the latency or allocation figures.
+ *
+ * Usage (all settings optional, shown with their defaults):
+ *   java ie.atu.sw.LoadHarness words=50000 dimension=50 targets=1000 zipf=1.0
+ *        text=fresh documents=16 tokens=5000 threads=4 modes=file,engine
+ *        warmup=10 duration=60 sample=5 seed=42 report=load-report.json
+ * warmup, duration and sample are in seconds.
+ */
+public class LoadHarness {
+
+    private static final String[] KEYS = {
+        "words", "dimension", "targets", "zipf", "text", "documents", "tokens",
+        "threads", "modes", "warmup", "duration", "sample", "seed", "report"
+    };
+
+    private static final String[] MODES = {"file", "engine"};
+    private static final String[] TEXTS = {"fresh", "fixed"};
+
+    private final Map<String, String> config = new LinkedHashMap<>();
+
+    /**
+     * @param args Settings as key=value pairs.
+     * @throws IllegalArgumentException If a setting is unknown or badly formed.
+     */
+    public LoadHarness(String[] args) {
+        config.put("words", "50000");
+        config.put("dimension", "50");
+        config.put("targets", "1000");
+        config.put("zipf", "1.0");
+        config.put("text", "fresh");
+        config.put("documents", "16");
+        config.put("tokens", "5000");
+        config.put("threads", "4");
+        config.put("modes", "file,engine");
+        config.put("warmup", "10");
+        config.put("duration", "60");
+        config.put("sample", "5");
+        config.put("seed", "42");
+        config.put("report", "load-report.json");
+
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (equals <= 0 || !config.containsKey(arg.substring(0, equals))) {
+                throw new IllegalArgumentException("Unknown setting '" + arg + "'. Settings: " + String.join(", ", KEYS));
+            }
+            config.put(arg.substring(0, equals), arg.substring(equals + 1));
+        }
+
+        // Check everything up front, before minutes are spent generating and loading the corpus
+        for (String key : new String[] {"words", "dimension", "targets", "documents", "tokens", "threads", "duration", "sample"}) {
+            if (intSetting(key) <= 0) {
+                throw new IllegalArgumentException("Setting '" + key + "' must be greater than 0");
+            }
+        }
+        if (intSetting("warmup") < 0) {
+            throw new IllegalArgumentException("Setting 'warmup' cannot be negative");
+        }
+        try {
+            Double.parseDouble(config.get("zipf"));
+            Long.parseLong(config.get("seed"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Settings 'zipf' and 'seed' must be numbers", e);
+        }
+        for (String mode : config.get("modes").split(",")) {
+            if (!Arrays.asList(MODES).contains(mode.trim())) {
+                throw new IllegalArgumentException("Unknown mode '" + mode.trim() + "'. Modes: " + String.join(", ", MODES));
+            }
+        }
+        if (!Arrays.asList(TEXTS).contains(config.get("text"))) {
+            throw new IllegalArgumentException("Setting 'text' must be one of: " + String.join(", ", TEXTS));
+        }
+    }
+
+    public static void main(String[] args) {
+        try {
+            new LoadHarness(args).run();
+        } catch (IOException | InterruptedException | IllegalArgumentException e) {
+            System.out.println(ConsoleColour.RED_BOLD +
+                "Load test failed: " + e.getMessage() +
+                ConsoleColour.RESET);
+        }
+    }
+
+    /**
+     * Generates the data, runs every mode and writes the report.
+     */
+    public void run() throws IOException, InterruptedException {
+        int dimension = intSetting("dimension");
+        int threads = intSetting("threads");
+        Path dir = Files.createTempDirectory("textsimplifier-load");
+
+        try {
+            // 1) Generate the synthetic corpus
+            log("Generating corpus in " + dir);
+            SyntheticCorpus corpus = new SyntheticCorpus(intSetting("words"),
+                Double.parseDouble(config.get("zipf")), Long.parseLong(config.get("seed")));
+            String embeddingsPath = dir.resolve("embeddings.txt").toString();
+            String targetsPath = dir.resolve("targets.txt").toString();
+            corpus.writeEmbeddings(embeddingsPath, dimension);
+            corpus.writeWordList(targetsPath, intSetting("targets"));
+
+            List<Input> fixedDocuments = new ArrayList<>();
+            if (config.get("text").equals("fixed")) {
+                for (int d = 0; d < intSetting("documents"); d++) {
+                    String text = corpus.generateText(intSetting("tokens"));
+                    Path path = dir.resolve("document-" + d + ".txt");
+                    Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+                    fixedDocuments.add(new Input(text, path.toString()));
+                }
+            }
+
+            // 2) Load it the same way Runner does
+            long loadStart = System.nanoTime();
+            Map<String, double[]> embeddings = EmbeddingParser.parseFile(embeddingsPath, dimension, ",\\s*");
+            List<String> targetWords = new GoogleWordsManager().loadGoogleWordList(targetsPath);
+            double loadSeconds = (System.nanoTime() - loadStart) / 1e9;
+            log(String.format(Locale.ROOT, "Loaded %d embeddings in %.2fs", embeddings.size(), loadSeconds));
+
+            // 3) Run each mode, each against a new vocabulary (and so an empty cache)
+            List<String> results = new ArrayList<>();
+            for (String mode : config.get("modes").split(",")) {
+                mode = mode.trim();
+                VocabularyRegistry registry = new VocabularyRegistry(embeddings);
+                TargetVocabulary vocabulary = registry.register("synthetic", targetWords);
+                SimplifierEngine engine = new SimplifierEngine(registry);
+                Operation operation = operation(mode, engine, dir);
+                Documents documents = documents(mode, corpus, fixedDocuments, threads, dir);
+
+                if (intSetting("warmup") > 0) {
+                    log("Warming up " + mode + " for " + intSetting("warmup") + "s");
+                    drive(operation, documents, vocabulary, threads, intSetting("warmup"), false);
+                }
+                log("Running " + mode + " for " + intSetting("duration") + "s on " + threads + " threads");
+                results.add(drive(operation, documents, vocabulary, threads, intSetting("duration"), true)
+                    .toJson(mode, threads));
+            }
+
+            // 4) Write the report
+            String report = report(loadSeconds, results);
+            Files.write(Paths.get(config.get("report")), report.getBytes(StandardCharsets.UTF_8));
+            log("Report written to " + config.get("report"));
+        } finally {
+            deleteDirectory(dir);
+        }
+    }
+
+    /**
+     * One document to simplify: its text, and the file holding it (null in engine mode).
+     */
+    private static final class Input {
+        final String text;
+        final String path;
+
+        Input(String text, String path) {
+            this.text = text;
+            this.path = path;
+        }
+    }
+
+    /**
+     * Hands each worker thread its next document. Only called from that worker's own thread.
+     */
+    private interface Documents {
+        Input next(int thread) throws IOException;
+    }
+
+    /**
+     * One unit of work: simplify the given document on worker thread 'thread'.
+     */
+    private interface Operation {
+        void run(int thread, Input input) throws IOException;
+    }
+
+    private Operation operation(String mode, SimplifierEngine engine, Path dir) {
+        if (mode.equals("file")) {
+            TextSimplifier simplifier = new TextSimplifier();
+            return (thread, input) -> simplifier.simplifyTextFile(
+                input.path, dir.resolve("output-" + thread + ".txt").toString(), engine, null);
+        }
+        if (mode.equals("engine")) {
+            return (thread, input) -> {
+                if (engine.simplify(input.text).isEmpty()) {
+                    throw new IOException("Empty output");
+                }
+            };
+        }
+        throw new IllegalArgumentException("Unknown mode '" + mode + "'. Modes: " + String.join(", ", MODES));
+    }
+
+    // Big O for documents = O(threads) to set up; each fresh document then costs O(T * log W)
+    private Documents documents(String mode, SyntheticCorpus corpus, List<Input> fixedDocuments, int threads, Path dir) {
+        int[] cursor = new int[threads];
+        if (config.get("text").equals("fixed")) {
+            for (int t = 0; t < threads; t++) {
+                cursor[t] = t % fixedDocuments.size();   // Threads start on different documents
+            }
+            return thread -> {
+                Input input = fixedDocuments.get(cursor[thread]);
+                cursor[thread] = (cursor[thread] + 1) % fixedDocuments.size();
+                return input;
+            };
+        }
+
+        // Fresh text: one Random per thread, seeded the same for every mode so the modes see the same text
+        int tokens = intSetting("tokens");
+        boolean toFile = mode.equals("file");
+        Random[] randoms = new Random[threads];
+        for (int t = 0; t < threads; t++) {
+            randoms[t] = new Random(Long.parseLong(config.get("seed")) + 1 + t);
+        }
+        return thread -> {
+            String text = corpus.generateText(tokens, randoms[thread]);
+            if (!toFile) {
+                return new Input(text, null);
+            }
+            Path path = dir.resolve("input-" + thread + ".txt");
+            Files.write(path, text.getBytes(StandardCharsets.UTF_8));
+            return new Input(text, path.toString());
+        };
+    }
+
+    /**
+     * Runs the operation on 'threads' threads for 'seconds' seconds, each thread taking
+     * its documents from 'documents', and collects the measurements. Only the operation
+     * itself is timed and counted towards allocation, not fetching the next document.
+     */
+    private Measurement drive(Operation operation, Documents documents, TargetVocabulary vocabulary,
+                              int threads, int seconds, boolean sampleHeap)
+            throws IOException, InterruptedException {
+        ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+        MemoryMXBean memoryBean = ManagementFactory.getMemoryMXBean();
+        Measurement m = new Measurement();
+        LatencyHistogram[] latencies = new LatencyHistogram[threads];
+        int tokensPerDocument = intSetting("tokens");
+        long[] tokens = new long[threads];
+        long[] allocated = new long[threads];
+        Exception[] failures = new Exception[threads];
+        CountDownLatch start = new CountDownLatch(1);
+
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            latencies[id] = new LatencyHistogram();
+            Thread worker = new Thread(() -> {
+                LatencyHistogram own = latencies[id];
+                long ownTokens = 0;
+                try {
+                    start.await();
+                    long ownAllocated = 0;
+                    long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+                    while (System.nanoTime() < deadline) {
+                        Input input = documents.next(id);
+                        long allocatedBefore = allocatedBytes(threadBean);
+                        long begin = System.nanoTime();
+                        operation.run(id, input);
+                        own.record(System.nanoTime() - begin);
+                        long allocatedAfter = allocatedBytes(threadBean);
+                        ownAllocated = (allocatedBefore < 0 || ownAllocated < 0) ? -1 : ownAllocated + allocatedAfter - allocatedBefore;
+                        ownTokens += tokensPerDocument;
+                    }
+                    allocated[id] = ownAllocated;
+                } catch (IOException | RuntimeException e) {
+                    failures[id] = e;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                tokens[id] = ownTokens;
+            }, "load-" + t);
+            workers.add(worker);
+            worker.start();
+        }
+
+        long gcCountBefore = 0;
+        long gcTimeBefore = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            gcCountBefore += Math.max(0, gc.getCollectionCount());
+            gcTimeBefore += Math.max(0, gc.getCollectionTime());
+        }
+        m.heapStart = memoryBean.getHeapMemoryUsage().getUsed();
+        long begin = System.nanoTime();
+        start.countDown();
+
+        // Sample the heap while the workers run
+        long sampleNanos = Math.max(1, intSetting("sample")) * 1_000_000_000L;
+        long nextSample = begin;
+        for (Thread worker : workers) {
+            while (worker.isAlive()) {
+                if (sampleHeap && System.nanoTime() >= nextSample) {
+                    long used = memoryBean.getHeapMemoryUsage().getUsed();
+                    m.heapSamples.add(new long[] {(System.nanoTime() - begin) / 1_000_000_000L, used,
+                        vocabulary.cachedReplacements()});
+                    m.heapMax = Math.max(m.heapMax, used);
+                    nextSample += sampleNanos;
+                }
+                worker.join(100);
+            }
+        }
+        m.seconds = (System.nanoTime() - begin) / 1e9;
+        m.heapEnd = memoryBean.getHeapMemoryUsage().getUsed();
+        m.heapMax = Math.max(m.heapMax, Math.max(m.heapStart, m.heapEnd));
+        m.cachedReplacements = vocabulary.cachedReplacements();
+
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            m.gcCount += Math.max(0, gc.getCollectionCount());
+            m.gcTimeMillis += Math.max(0, gc.getCollectionTime());
+        }
+        m.gcCount -= gcCountBefore;
+        m.gcTimeMillis -= gcTimeBefore;
+
+        for (int t = 0; t < threads; t++) {
+            if (failures[t] != null) {
+                throw new IOException("Worker " + t + " failed: " + failures[t], failures[t]);
+            }
+            m.latencies.add(latencies[t]);
+            m.tokens += tokens[t];
+            m.allocatedBytes = (allocated[t] < 0 || m.allocatedBytes < 0) ? -1 : m.allocatedBytes + allocated[t];
+        }
+        m.operations = m.latencies.count();
+        return m;
+    }
+
+    /**
+     * @return Bytes allocated so far by the calling thread, or -1 if the JVM cannot tell.
+     */
+    private static long allocatedBytes(ThreadMXBean threadBean) {
+        if (threadBean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) threadBean;
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Everything measured during one mode's run.
+     */
+    private static final class Measurement {
+        double seconds;
+        long operations;
+        long tokens;
+        final LatencyHistogram latencies = new LatencyHistogram();
+        long allocatedBytes;
+        long gcCount;
+        long gcTimeMillis;
+        long heapStart;
+        long heapEnd;
+        long heapMax;
+        int cachedReplacements;
+        final List<long[]> heapSamples = new ArrayList<>();   // [second, heap bytes, cached replacements]
+
+        String toJson(String mode, int threads) {
+            StringBuilder sb = new StringBuilder();
+            sb.append("    {\n");
+            sb.append("      \"mode\": \"").append(mode).append("\",\n");
+            sb.append("      \"threads\": ").append(threads).append(",\n");
+            sb.append("      \"durationSeconds\": ").append(number(seconds)).append(",\n");
+            sb.append("      \"operations\": ").append(operations).append(",\n");
+            sb.append("      \"tokens\": ").append(tokens).append(",\n");
+            sb.append("      \"operationsPerSecond\": ").append(number(operations / seconds)).append(",\n");
+            sb.append("      \"tokensPerSecond\": ").append(number(tokens / seconds)).append(",\n");
+            sb.append("      \"latencyMillis\": {")
+              .append("\"p50\": ").append(number(latencies.percentileMillis(0.50))).append(", ")
+              .append("\"p99\": ").append(number(latencies.percentileMillis(0.99))).append(", ")
+              .append("\"p999\": ").append(number(latencies.percentileMillis(0.999))).append(", ")
+              .append("\"max\": ").append(number(latencies.maxNanos / 1e6))
+              .append("},\n");
+            sb.append("      \"allocatedBytes\": ").append(allocatedBytes).append(",\n");
+            sb.append("      \"allocationRateMBPerSecond\": ")
+              .append(allocatedBytes < 0 ? "null" : number(allocatedBytes / seconds / (1024 * 1024))).append(",\n");
+            sb.append("      \"gcCount\": ").append(gcCount).append(",\n");
+            sb.append("      \"gcTimeMillis\": ").append(gcTimeMillis).append(",\n");
+            sb.append("      \"gcTimePercent\": ").append(number(gcTimeMillis / (seconds * 10))).append(",\n");
+            sb.append("      \"heapUsedBytes\": {")
+              .append("\"start\": ").append(heapStart).append(", ")
+              .append("\"end\": ").append(heapEnd).append(", ")
+              .append("\"max\": ").append(heapMax).append("},\n");
+            sb.append("      \"cachedReplacements\": ").append(cachedReplacements).append(",\n");
+            sb.append("      \"heapSamples\": [");
+            for (int i = 0; i < heapSamples.size(); i++) {
+                long[] sample = heapSamples.get(i);
+                sb.append(i == 0 ? "" : ", ")
+                  .append("[").append(sample[0]).append(", ").append(sample[1]).append(", ").append(sample[2]).append("]");
+            }
+            sb.append("]\n");
+            sb.append("    }");
+            return sb.toString();
+        }
+    }
+
+    /**
+     * A fixed-size, log-bucketed latency histogram (in nanoseconds), so memory use
+     * does not grow with the length of the run.
+     *
+     * Values below 128ns get a bucket each; above that, every power of two is split
+     * into 64 buckets, so a reported latency is within 1% of the real one.
+     * Each worker thread fills its own histogram and they are merged at the end.
+     */
+    private static final class LatencyHistogram {
+        private static final int SUB_BUCKETS = 64;
+        private static final int BUCKETS = 2 * SUB_BUCKETS + 56 * SUB_BUCKETS;   // Covers every positive long
+
+        private final long[] counts = new long[BUCKETS];
+        private long total;
+        private long maxNanos;
+
+        void record(long nanos) {
+            nanos = Math.max(0, nanos);
+            counts[bucket(nanos)]++;
+            total++;
+            maxNanos = Math.max(maxNanos, nanos);
+        }
+
+        void add(LatencyHistogram other) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += other.counts[i];
+            }
+            total += other.total;
+            maxNanos = Math.max(maxNanos, other.maxNanos);
+        }
+
+        long count() {
+            return total;
+        }
+
+        /**
+         * @return The latency (in ms) that the given fraction of operations finished within.
+         */
+        double percentileMillis(double fraction) {
+            if (total == 0) {
+                return 0.0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(fraction * total));
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(bucketMidpoint(i), maxNanos) / 1e6;
+                }
+            }
+            return maxNanos / 1e6;
+        }
+
+        // Big O for bucket = O(1)
+        private static int bucket(long nanos) {
+            if (nanos < 2 * SUB_BUCKETS) {
+                return (int) nanos;
+            }
+            int shift = 63 - Long.numberOfLeadingZeros(nanos) - 6;     // Keep the top 7 bits
+            int top = (int) (nanos >>> shift);                         // 64..127
+            return 2 * SUB_BUCKETS + (shift - 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+        }
+
+        private static long bucketMidpoint(int index) {
+            if (index < 2 * SUB_BUCKETS) {
+                return index;
+            }
+            int shift = (index - 2 * SUB_BUCKETS) / SUB_BUCKETS + 1;
+            long top = (index - 2 * SUB_BUCKETS) % SUB_BUCKETS + SUB_BUCKETS;
+            return (top << shift) + (1L << shift) / 2;
+        }
+    }
+
+    private String report(double loadSeconds, List<String> results) {
+        Runtime runtime = Runtime.getRuntime();
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\n");
+        sb.append("  \"config\": {");
+        boolean first = true;
+        for (Map.Entry<String, String> entry : config.entrySet()) {
+            if (entry.getKey().equals("report")) {
+                continue;
+            }
+            sb.append(first ? "" : ", ").append("\"").append(entry.getKey()).append("\": \"")
+              .append(entry.getValue().replace("\\", "\\\\").replace("\"", "\\\"")).append("\"");
+            first = false;
+        }
+        sb.append("},\n");
+        sb.append("  \"environment\": {")
+          .append("\"javaVersion\": \"").append(System.getProperty("java.version")).append("\", ")
+          .append("\"processors\": ").append(runtime.availableProcessors()).append(", ")
+          .append("\"maxHeapBytes\": ").append(runtime.maxMemory()).append("},\n");
+        sb.append("  \"loadSeconds\": ").append(number(loadSeconds)).append(",\n");
+        sb.append("  \"results\": [\n");
+        sb.append(String.join(",\n", results)).append("\n");
+        sb.append("  ]\n");
+        sb.append("}\n");
+        return sb.toString();
+    }
+
+    private int intSetting(String key) {
+        try {
+            return Integer.parseInt(config.get(key));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Setting '" + key + "' must be a whole number", e);
+        }
+    }
+
+    private static String number(double value) {
+        return String.format(Locale.ROOT, "%.3f", value);
+    }
+
+    private static void log(String message) {
+        System.out.println(ConsoleColour.CYAN_BOLD + message + ConsoleColour.RESET);
+    }
+
+    private static void deleteDirectory(Path dir) throws IOException {
+        File[] files = dir.toFile().listFiles();
+        if (files != null) {
+            for (File file : files) {
+                Files.deleteIfExists(file.toPath());
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+}
@@ -1,6 +1,7 @@
 package ie.atu.sw;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
@@ -13,29 +14,38 @@ import java.util.Scanner;
  * Runner is the main entry point for the console-based application.
  * It provides a menu for:
  * 1. Loading GloVE embeddings (using default vector size & delimiter)
- * 2. Loading the Google-1000 word list
- * 3. Building a subset map for Google-1000
- * 4. Setting input/output files
- * 5. Simplifying text
- * 6. Quitting
+ * 2. Loading a target word list (e.g. Google-1000)
+ * 3. Building a named target vocabulary from that list
+ * 4. Setting the input file
+ * 5. Setting the output file
+ * 6. Simplifying text
+ * 7. Quitting
+ * 8. Selecting which target vocabulary to simplify towards
+ * 9. Connecting to shard workers (optional, for very large vocabularies)
+ * 
+ * New options are added after Quit so existing option numbers never change.
  */
 public class Runner {
 	
 	// Defaults for GloVE
 	private static final int    DEFAULT_VECTOR_SIZE = 50;   
     private static final String DEFAULT_DELIMITER   = ",\\s*";
+    private static final String DEFAULT_VOCABULARY  = "google-1000";
+    private static final int    SHARD_TIMEOUT_MS    = 10000;
 	
 	// Maps and lists to hold data
     private static Map<String, double[]> gloveEmbeddings;       // Big GloVE map
-    private static List<String> googleWords;                    // Plain list of Google-1000 words
-    private static Map<String, double[]> googleSubsetMap;       // Subset of GloVE only for Google-1000
+    private static List<String> googleWords;                    // Plain list of target words (e.g. Google-1000)
+    private static VocabularyRegistry vocabularies;             // Named target vocabularies sharing the GloVE map
+    private static String activeVocabulary;                     // Name of the vocabulary used for simplifying
+    private static ShardCoordinator shardCoordinator;           // Optional: similarity search spread over worker processes
     
     // File paths (the user can set them via the menu)
     private static String inputFilePath;
     private static String outputFilePath;
     
     // Helper Classes
-    // For loading Google words and building subset
+    // For loading target word lists
     private static GoogleWordsManager googleManager = new GoogleWordsManager();
 
     // For simplifying text
@@ -58,7 +68,7 @@ public class Runner {
                     loadGoogleWords(scanner);
                     break;
                 case "3":
-                    buildGoogleSubset();
+                    buildGoogleSubset(scanner);
                     break;
                 case "4":
                     setInputFile(scanner);
@@ -71,13 +81,20 @@ public class Runner {
                     break;
                 case "7":
                     running = false;
+                    disconnectShardWorkers();
                     System.out.println(ConsoleColour.CYAN_BOLD + 
                         "Exiting application..." + 
                         ConsoleColour.RESET);
                     break;
+                case "8":
+                    selectVocabulary(scanner);
+                    break;
+                case "9":
+                    connectShardWorkers(scanner);
+                    break;
                 default:
                     System.out.println(ConsoleColour.RED_BOLD + 
-                        "Invalid option. Please select a valid option [1-7]." + 
+                        "Invalid option. Please select a valid option [1-9]." + 
                         ConsoleColour.RESET);
             }
         }
@@ -99,14 +116,16 @@ public class Runner {
         System.out.println("************************************************************");
         System.out.println(ConsoleColour.RESET);
         System.out.println("(1) Load GloVE Embeddings");
-        System.out.println("(2) Load Google-1000 Words");
-        System.out.println("(3) Build Google Subset Map");
+        System.out.println("(2) Load Target Word List");
+        System.out.println("(3) Build Target Vocabulary");
         System.out.println("(4) Set Input Text File");
         System.out.println("(5) Set Output File");
         System.out.println("(6) Simplify Text");
         System.out.println("(7) Quit");
+        System.out.println("(8) Select Target Vocabulary");
+        System.out.println("(9) Connect Shard Workers");
         System.out.print(ConsoleColour.BLUE_BOLD);
-        System.out.print("Select Option [1-7]>");
+        System.out.print("Select Option [1-9]>");
         System.out.println(ConsoleColour.RESET);
     }
 
@@ -133,6 +152,11 @@ public class Runner {
                 "Loaded " + gloveEmbeddings.size() + " embeddings from " + filePath +
                 ConsoleColour.RESET);
 
+            // Vocabularies built against the old embeddings are no longer valid
+            vocabularies = new VocabularyRegistry(gloveEmbeddings);
+            activeVocabulary = null;
+            disconnectShardWorkers();
+
         } catch (IOException e) {
             System.out.println(ConsoleColour.RED_BOLD + 
                 "Error loading GloVE: " + e.getMessage() + 
@@ -141,32 +165,34 @@ public class Runner {
     }
 
     /**
-     * Menu option (2): Load Google-1000 words from a plain list (one word per line).
+     * Menu option (2): Load a target word list (e.g. Google-1000) from a plain list (one word per line).
      */
     private static void loadGoogleWords(Scanner scanner) {
-        System.out.println(ConsoleColour.YELLOW_BOLD + "Load Google-1000 Words" + ConsoleColour.RESET);
-        System.out.print("Enter Google-1000 file path: ");
+        System.out.println(ConsoleColour.YELLOW_BOLD + "Load Target Word List" + ConsoleColour.RESET);
+        System.out.print("Enter word list file path: ");
         String googlePath = scanner.nextLine().trim();
 
         try {
             googleWords = googleManager.loadGoogleWordList(googlePath);
             System.out.println(ConsoleColour.GREEN_BOLD + 
-                "Loaded " + googleWords.size() + " Google-1000 words from " + googlePath +
+                "Loaded " + googleWords.size() + " words from " + googlePath +
                 ConsoleColour.RESET);
 
-            // If gloveEmbeddings is already loaded, user can build the subset map next
+            // If gloveEmbeddings is already loaded, user can build a vocabulary next
         } catch (IOException e) {
             System.out.println(ConsoleColour.RED_BOLD + 
-                "Error loading Google-1000 words: " + e.getMessage() + 
+                "Error loading word list: " + e.getMessage() + 
                 ConsoleColour.RESET);
         }
     }
 
     /**
-     * Menu option (3): Build the Google subset map (googleWords -> gloveEmbeddings).
+     * Menu option (3): Build a named target vocabulary (googleWords -> gloveEmbeddings)
+     * and make it the active one. Several vocabularies can be built; they all share
+     * the one copy of the GloVE embeddings.
      */
-    private static void buildGoogleSubset() {
-        System.out.println(ConsoleColour.YELLOW_BOLD + "Build Google Subset Map" + ConsoleColour.RESET);
+    private static void buildGoogleSubset(Scanner scanner) {
+        System.out.println(ConsoleColour.YELLOW_BOLD + "Build Target Vocabulary" + ConsoleColour.RESET);
         if (gloveEmbeddings == null || gloveEmbeddings.isEmpty()) {
             System.out.println(ConsoleColour.RED_BOLD + 
                 "Error: GloVE embeddings not loaded yet." + 
@@ -175,17 +201,55 @@ public class Runner {
         }
         if (googleWords == null || googleWords.isEmpty()) {
             System.out.println(ConsoleColour.RED_BOLD + 
-                "Error: Google-1000 words not loaded yet." + 
+                "Error: Target word list not loaded yet." + 
                 ConsoleColour.RESET);
             return;
         }
 
-        googleSubsetMap = googleManager.buildGoogleSubsetMap(gloveEmbeddings, googleWords);
+        System.out.print("Enter a name for this vocabulary [" + DEFAULT_VOCABULARY + "]: ");
+        String name = scanner.nextLine().trim();
+        if (name.isEmpty()) {
+            name = DEFAULT_VOCABULARY;
+        }
+
+        TargetVocabulary vocabulary = vocabularies.register(name, googleWords);
+        activeVocabulary = name;
         System.out.println(ConsoleColour.GREEN_BOLD + 
-            "Built subset map with " + googleSubsetMap.size() + " entries." + 
+            "Built vocabulary '" + name + "' with " + vocabulary.size() + " entries." + 
             ConsoleColour.RESET);
     }
 
+    /**
+     * Menu option (8): Select which of the built vocabularies to simplify towards.
+     */
+    private static void selectVocabulary(Scanner scanner) {
+        System.out.println(ConsoleColour.YELLOW_BOLD + "Select Target Vocabulary" + ConsoleColour.RESET);
+        if (vocabularies == null || vocabularies.isEmpty()) {
+            System.out.println(ConsoleColour.RED_BOLD + 
+                "Error: No vocabularies built yet." + 
+                ConsoleColour.RESET);
+            return;
+        }
+
+        for (String name : vocabularies.names()) {
+            String marker = name.equals(activeVocabulary) ? " (active)" : "";
+            System.out.println("  " + name + " - " + vocabularies.get(name).size() + " words" + marker);
+        }
+        System.out.print("Enter vocabulary name: ");
+        String name = scanner.nextLine().trim();
+
+        if (vocabularies.get(name) != null) {
+            activeVocabulary = name;
+            System.out.println(ConsoleColour.GREEN_BOLD + 
+                "Active vocabulary set: " + name + 
+                ConsoleColour.RESET);
+        } else {
+            System.out.println(ConsoleColour.RED_BOLD + 
+                "Unknown vocabulary: " + name + 
+                ConsoleColour.RESET);
+        }
+    }
+
     /**
      * Menu option (4): Set the input text file path.
      */
@@ -228,7 +292,7 @@ public class Runner {
 
     /**
      * Menu option (6): Simplify the text (using the loaded GloVE embeddings,
-     * the built Google-1000 subset, and the user-specified input/output files).
+     * the active target vocabulary, and the user-specified input/output files).
      */
     private static void simplifyText() {
         System.out.println(ConsoleColour.YELLOW_BOLD + "Simplify Text" + ConsoleColour.RESET);
@@ -240,9 +304,15 @@ public class Runner {
                 ConsoleColour.RESET);
             return;
         }
-        if (googleSubsetMap == null || googleSubsetMap.isEmpty()) {
+        if (activeVocabulary == null) {
             System.out.println(ConsoleColour.RED_BOLD +
-                "Error: Google subset map not built. Load Google-1000 words and build the subset." +
+                "Error: No target vocabulary built. Load a word list and build a vocabulary." +
+                ConsoleColour.RESET);
+            return;
+        }
+        if (vocabularies.get(activeVocabulary).size() == 0) {
+            System.out.println(ConsoleColour.RED_BOLD +
+                "Error: Vocabulary '" + activeVocabulary + "' has no words with GloVE embeddings." +
                 ConsoleColour.RESET);
             return;
         }
@@ -259,9 +329,27 @@ public class Runner {
             return;
         }
 
+        // If shard workers are connected for this vocabulary, let them find the replacements first.
+        // If a shard fails, disconnect and carry on: the engine finds any missing replacements itself.
+        TargetVocabulary vocabulary = vocabularies.get(activeVocabulary);
+        if (shardCoordinator != null && shardCoordinator.getVocabulary() == vocabulary) {
+            try {
+                int found = shardCoordinator.warmCache(gloveEmbeddings, textSimplifier.distinctWords(inputFilePath));
+                System.out.println(ConsoleColour.GREEN_BOLD + 
+                    "Shard workers found " + found + " replacements." + 
+                    ConsoleColour.RESET);
+            } catch (IOException e) {
+                System.out.println(ConsoleColour.RED_BOLD + 
+                    "Shard workers failed (" + e.getMessage() + "), disconnected. Continuing locally." + 
+                    ConsoleColour.RESET);
+                disconnectShardWorkers();
+            }
+        }
+
         // All good, run the simplification
         try {
-            textSimplifier.simplifyTextFile(inputFilePath, outputFilePath, gloveEmbeddings, googleSubsetMap);
+            SimplifierEngine engine = new SimplifierEngine(vocabularies);
+            textSimplifier.simplifyTextFile(inputFilePath, outputFilePath, engine, activeVocabulary);
             System.out.println(ConsoleColour.GREEN_BOLD + 
                 "Text simplified! Output written to: " + outputFilePath +
                 ConsoleColour.RESET);
@@ -272,4 +360,51 @@ public class Runner {
         }
     }
 
+    /**
+     * Menu option (9): Connect to running ShardWorker processes and split the active
+     * vocabulary across them. Simplifying then asks the workers for the replacements.
+     */
+    private static void connectShardWorkers(Scanner scanner) {
+        System.out.println(ConsoleColour.YELLOW_BOLD + "Connect Shard Workers" + ConsoleColour.RESET);
+        if (activeVocabulary == null) {
+            System.out.println(ConsoleColour.RED_BOLD + 
+                "Error: Build a target vocabulary first." + 
+                ConsoleColour.RESET);
+            return;
+        }
+
+        System.out.print("Enter worker addresses (host:port, comma separated, blank to disconnect): ");
+        String list = scanner.nextLine().trim();
+
+        disconnectShardWorkers();
+        if (list.isEmpty()) {
+            System.out.println(ConsoleColour.GREEN_BOLD + 
+                "Shard workers disconnected." + 
+                ConsoleColour.RESET);
+            return;
+        }
+
+        try {
+            List<InetSocketAddress> workers = ShardCoordinator.parseAddresses(list);
+            shardCoordinator = new ShardCoordinator(vocabularies.get(activeVocabulary), workers, SHARD_TIMEOUT_MS);
+            System.out.println(ConsoleColour.GREEN_BOLD + 
+                "Vocabulary '" + activeVocabulary + "' split across " + workers.size() + " workers." + 
+                ConsoleColour.RESET);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println(ConsoleColour.RED_BOLD + 
+                "Error connecting to shard workers: " + e.getMessage() + 
+                ConsoleColour.RESET);
+        }
+    }
+
+    /**
+     * Closes the connection to the shard workers, if there is one.
+     */
+    private static void disconnectShardWorkers() {
+        if (shardCoordinator != null) {
+            shardCoordinator.close();
+            shardCoordinator = null;
+        }
+    }
+
 }
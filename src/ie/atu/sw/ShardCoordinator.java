@@ -0,0 +1,346 @@
+package ie.atu.sw;
+
+import java.io.*;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * @author Peter Carroll
+ * @version 1.0
+ * @since 1.8
+ *
+ * ShardCoordinator splits a target vocabulary's embedding matrix across
+ * several ShardWorker processes and merges their answers.
+ *
+ * 1) The constructor divides the vocabulary's rows into one contiguous slice
+ *    per worker and sends each worker its slice.
+ * 2) bestMatches() sends a batch of query vectors to every worker at once,
+ *    and keeps the highest scoring row across all of them.
+ * 3) warmCache() looks up every word of a text in batches and stores the
+ *    answers in the vocabulary's replacement cache, so the normal
+ *    SimplifierEngine path is then served from the cache.
+ *
+ * A worker that does not answer within the timeout (or drops the connection,
+ * or sends back a row outside its shard) makes the call fail with an
+ * IOException naming that shard. The timeout covers the whole batch, not
+ * each shard in turn. The failed
+ * connection is closed and not retried, so callers should close the
+ * coordinator and fall back to local search (TargetVocabulary.findBestMatch).
+ *
+ * SimplifierEngine never calls the shards itself; it only sees their answers
+ * through the vocabulary's replacement cache. So to spread the search for
+ * concurrent callers, call warmCache() with a request's words before passing
+ * it to SimplifierEngine.simplify (Runner does this for each input file).
+ * Any word not warmed is still searched locally by the engine.
+ */
+public class ShardCoordinator implements Closeable {
+
+    private static final int BATCH_SIZE = 1024;
+
+    private final TargetVocabulary vocabulary;
+    private final int timeoutMillis;
+    private final List<Shard> shards = new ArrayList<>();
+    private final ExecutorService executor;
+
+    /**
+     * Connects to each worker and sends it its slice of the vocabulary.
+     *
+     * @param vocabulary    The target vocabulary to partition.
+     * @param workers       The worker addresses (host:port), one shard each.
+     * @param timeoutMillis How long to wait for a worker before treating its shard as failed.
+     * @throws IOException If any worker cannot be reached or loaded in time.
+     */
+
+    // Big O for the constructor = O(G * n) to send the matrix, where G is the vocabulary size
+    public ShardCoordinator(TargetVocabulary vocabulary, List<InetSocketAddress> workers, int timeoutMillis) throws IOException {
+        if (workers.isEmpty()) {
+            throw new IllegalArgumentException("At least one worker is needed.");
+        }
+        if (vocabulary.size() == 0) {
+            throw new IllegalArgumentException("Vocabulary '" + vocabulary.getName() + "' is empty.");
+        }
+        this.vocabulary = vocabulary;
+        this.timeoutMillis = timeoutMillis;
+        this.executor = Executors.newFixedThreadPool(workers.size(), r -> {
+            Thread thread = new Thread(r, "shard-coordinator");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        // Split the rows as evenly as possible, e.g. 1000 rows over 3 workers -> 334, 333, 333
+        // (never more shards than rows, so no worker gets an empty shard)
+        int rows = vocabulary.size();
+        int count = Math.min(workers.size(), rows);
+        int from = 0;
+        for (int i = 0; i < count; i++) {
+            int to = from + rows / count + (i < rows % count ? 1 : 0);
+            Shard shard = new Shard(i, workers.get(i), from, to);
+            shards.add(shard);
+            try {
+                shard.connect();
+                shard.load(vocabulary.copyRows(from, to), vocabulary.getDimension());
+            } catch (IOException e) {
+                close();
+                throw new IOException(shard + " failed to load: " + e.getMessage(), e);
+            }
+            from = to;
+        }
+    }
+
+    public TargetVocabulary getVocabulary() {
+        return vocabulary;
+    }
+
+    /**
+     * Finds the best matching target word for each query vector, using every shard.
+     *
+     * @param queries The query vectors (e.g. GloVE embeddings), not necessarily unit length.
+     * @return The best matching target word for each query, in the same order.
+     * @throws IOException If a shard fails or does not answer within the timeout.
+     */
+
+    // Big O for bestMatches = O(Q * G * n / S) per shard, where Q is the number of queries and S the number of shards
+    public String[] bestMatches(List<double[]> queries) throws IOException {
+        if (queries.isEmpty()) {
+            return new String[0];
+        }
+        int dimension = vocabulary.getDimension();
+
+        // Scale each query to unit length (same as TargetVocabulary.findBestMatch)
+        double[] packed = new double[queries.size() * dimension];
+        for (int q = 0; q < queries.size(); q++) {
+            double[] vector = queries.get(q);
+            int length = Math.min(vector.length, dimension);
+            double scale = SimilarityCalculator.unitScale(vector, length);
+            for (int i = 0; i < length; i++) {
+                packed[q * dimension + i] = vector[i] * scale;
+            }
+        }
+
+        // Send the batch to every shard in parallel; the whole batch shares one deadline
+        List<Future<ShardResult>> futures = new ArrayList<>();
+        for (Shard shard : shards) {
+            futures.add(executor.submit(() -> shard.query(packed, queries.size())));
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+
+        // Merge: keep the highest score; on a tie the earlier shard (lower row) wins.
+        // Every answer is checked first, so a bad row never indexes the wrong word.
+        String[] matches = new String[queries.size()];
+        double[] bestScores = new double[queries.size()];
+        Arrays.fill(bestScores, -Double.MAX_VALUE);
+        for (int s = 0; s < shards.size(); s++) {
+            Shard shard = shards.get(s);
+            ShardResult result = await(shard, futures.get(s), deadline);
+            for (int q = 0; q < matches.length; q++) {
+                int row = result.rows[q];
+                if (row < 0 || row >= shard.lastRow - shard.firstRow || Double.isNaN(result.scores[q])) {
+                    shard.close(); // A worker sending bad answers cannot be trusted for later batches either
+                    throw new IOException(shard + " returned an invalid answer (row " + row + ", score " + result.scores[q] + ")");
+                }
+                if (result.scores[q] > bestScores[q]) {
+                    bestScores[q] = result.scores[q];
+                    matches[q] = vocabulary.wordAt(shard.firstRow + row);
+                }
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Works out the replacement for every word that still needs one and stores it in
+     * the vocabulary's cache. Words already in the vocabulary, already cached, or
+     * without an embedding are skipped.
+     *
+     * @param embeddings A map of word -> vector (e.g., GloVE embeddings).
+     * @param words      The lower-case words about to be simplified.
+     * @return The number of replacements added to the cache.
+     * @throws IOException If a shard fails or does not answer within the timeout.
+     */
+
+    // Big O for warmCache = O(W * G * n / S) where W is the number of distinct words to look up
+    public int warmCache(Map<String, double[]> embeddings, Collection<String> words) throws IOException {
+        List<String> batchWords = new ArrayList<>(BATCH_SIZE);
+        List<double[]> batchVectors = new ArrayList<>(BATCH_SIZE);
+        Set<String> seen = new HashSet<>();
+        int added = 0;
+
+        for (String word : words) {
+            if (!seen.add(word) || vocabulary.contains(word) || vocabulary.isCached(word)) {
+                continue;
+            }
+            double[] vector = embeddings.get(word);
+            if (vector == null) {
+                continue;
+            }
+            batchWords.add(word);
+            batchVectors.add(vector);
+            if (batchWords.size() == BATCH_SIZE) {
+                added += cacheBatch(batchWords, batchVectors);
+            }
+        }
+        if (!batchWords.isEmpty()) {
+            added += cacheBatch(batchWords, batchVectors);
+        }
+        return added;
+    }
+
+    private int cacheBatch(List<String> batchWords, List<double[]> batchVectors) throws IOException {
+        String[] matches = bestMatches(batchVectors);
+        int added = 0;
+        for (int i = 0; i < matches.length; i++) {
+            if (matches[i] != null) {
+                vocabulary.cacheReplacement(batchWords.get(i), matches[i]);
+                added++;
+            }
+        }
+        batchWords.clear();
+        batchVectors.clear();
+        return added;
+    }
+
+    private ShardResult await(Shard shard, Future<ShardResult> future, long deadline) throws IOException {
+        try {
+            long remaining = Math.max(0L, deadline - System.nanoTime());
+            return future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            shard.close(); // The connection is now out of step, so it cannot be reused
+            throw new IOException(shard + " timed out after " + timeoutMillis + "ms");
+        } catch (ExecutionException e) {
+            shard.close();
+            throw new IOException(shard + " failed: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for " + shard, e);
+        }
+    }
+
+    /**
+     * Closes every worker connection. The workers themselves keep running.
+     */
+    @Override
+    public void close() {
+        for (Shard shard : shards) {
+            shard.close();
+        }
+        executor.shutdownNow();
+    }
+
+    /**
+     * Parses a comma-separated list of worker addresses, e.g. "localhost:9001, 10.0.0.5:9001".
+     *
+     * @param list The addresses as host:port pairs.
+     * @return The parsed addresses.
+     * @throws IllegalArgumentException If an entry is not a valid host:port pair.
+     */
+    public static List<InetSocketAddress> parseAddresses(String list) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String part : list.split(",")) {
+            part = part.trim();
+            if (part.isEmpty()) {
+                continue;
+            }
+            int colon = part.lastIndexOf(':');
+            if (colon <= 0 || colon == part.length() - 1) {
+                throw new IllegalArgumentException("Expected host:port but got '" + part + "'");
+            }
+            int port = Integer.parseInt(part.substring(colon + 1));
+            addresses.add(new InetSocketAddress(part.substring(0, colon), port));
+        }
+        return addresses;
+    }
+
+    /**
+     * One worker connection and the rows [firstRow, lastRow) it holds.
+     * Calls are synchronized so batches from different threads do not interleave on the socket.
+     */
+    private final class Shard {
+        final int id;
+        final InetSocketAddress address;
+        final int firstRow;
+        final int lastRow;
+        volatile Socket socket;
+        DataInputStream in;
+        DataOutputStream out;
+
+        Shard(int id, InetSocketAddress address, int firstRow, int lastRow) {
+            this.id = id;
+            this.address = address;
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+        }
+
+        synchronized void connect() throws IOException {
+            socket = new Socket();
+            socket.connect(address, timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+
+        synchronized void load(double[] rows, int dimension) throws IOException {
+            out.writeByte(ShardWorker.LOAD);
+            out.writeInt(lastRow - firstRow);
+            out.writeInt(dimension);
+            for (double value : rows) {
+                out.writeDouble(value);
+            }
+            out.flush();
+            if (in.readByte() != ShardWorker.OK) {
+                throw new IOException(this + " did not accept its rows");
+            }
+        }
+
+        synchronized ShardResult query(double[] packed, int count) throws IOException {
+            if (socket == null || socket.isClosed()) {
+                throw new IOException("connection is closed");
+            }
+            out.writeByte(ShardWorker.QUERY);
+            out.writeInt(count);
+            for (double value : packed) {
+                out.writeDouble(value);
+            }
+            out.flush();
+
+            ShardResult result = new ShardResult(count);
+            for (int q = 0; q < count; q++) {
+                result.rows[q] = in.readInt();
+                result.scores[q] = in.readDouble();
+            }
+            return result;
+        }
+
+        void close() {
+            Socket s = socket;
+            if (s != null) {
+                try {
+                    s.close();
+                } catch (IOException e) {
+                    // Nothing more can be done with a broken connection
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "Shard " + id + " (" + address.getHostString() + ":" + address.getPort() + ")";
+        }
+    }
+
+    /**
+     * One shard's answer to a batch: the best local row and its score for each query.
+     */
+    private static final class ShardResult {
+        final int[] rows;
+        final double[] scores;
+
+        ShardResult(int count) {
+            rows = new int[count];
+            scores = new double[count];
+        }
+    }
+}
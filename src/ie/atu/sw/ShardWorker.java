@@ -0,0 +1,157 @@
+package ie.atu.sw;
+
+import java.io.*;
+import java.net.ServerSocket;
+import java.net.Socket;
+
+/**
+ * @author Peter Carroll
+ * @version 1.0
+ * @since 1.8
+ *
+ * ShardWorker is a stand-alone process that holds one slice (shard) of a
+ * target vocabulary's embedding matrix and answers similarity queries for it.
+ *
+ * Start one worker per process (on localhost or another host):
+ *   java ie.atu.sw.ShardWorker 9001
+ *
+ * A ShardCoordinator connects over plain TCP, sends the worker its rows,
+ * then sends batches of query vectors. For every query the worker replies
+ * with the row (local to its shard) that scored highest and that score.
+ * Each connection has its own shard, so one worker can serve several coordinators.
+ *
+ * Messages (DataInputStream / DataOutputStream, big-endian):
+ *   LOAD : byte LOAD,  int rows, int dimension, rows * dimension doubles  -> byte OK
+ *   QUERY: byte QUERY, int count, count * dimension doubles               -> count * (int row, double score)
+ * Both the rows and the queries are already scaled to unit length, so the
+ * Cosine similarity is just the dot product.
+ *
+ * Sizes read from the socket are checked before anything is allocated,
+ * and a QUERY before any LOAD is refused; either closes the connection.
+ * There is no authentication, so only run workers on trusted networks.
+ */
+public class ShardWorker {
+
+    static final byte LOAD  = 1;
+    static final byte QUERY = 2;
+    static final byte OK    = 0;
+
+    // Limits on what a connection may ask for, so a bad or hostile peer cannot exhaust memory
+    static final int MAX_DIMENSION     = 4096;
+    static final int MAX_MATRIX_VALUES = 1 << 25;   // 32M doubles (256 MB) per shard
+    static final int MAX_BATCH_VALUES  = 1 << 22;   // 4M doubles (32 MB) per query batch
+
+    /**
+     * Listens on the given port and serves each coordinator connection on its own thread.
+     *
+     * @param args args[0] is the TCP port to listen on.
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.out.println("Usage: java ie.atu.sw.ShardWorker <port>");
+            return;
+        }
+        int port = Integer.parseInt(args[0]);
+
+        try (ServerSocket server = new ServerSocket(port)) {
+            System.out.println(ConsoleColour.GREEN_BOLD +
+                "Shard worker listening on port " + port +
+                ConsoleColour.RESET);
+            while (true) {
+                Socket socket = server.accept();
+                Thread thread = new Thread(() -> serve(socket), "shard-" + socket.getRemoteSocketAddress());
+                thread.setDaemon(true);
+                thread.start();
+            }
+        } catch (IOException e) {
+            System.out.println(ConsoleColour.RED_BOLD +
+                "Shard worker stopped: " + e.getMessage() +
+                ConsoleColour.RESET);
+        }
+    }
+
+    /**
+     * Handles one coordinator connection until it is closed.
+     */
+    private static void serve(Socket socket) {
+        try (Socket s = socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+
+            s.setTcpNoDelay(true);
+            double[] matrix = new double[0];
+            int rows = 0;
+            int dimension = 0;
+            double[] queries = new double[0];
+
+            while (true) {
+                int command = in.read();
+                if (command == -1) {
+                    return; // Coordinator closed the connection
+                }
+
+                if (command == LOAD) {
+                    rows = in.readInt();
+                    dimension = in.readInt();
+                    checkSize("rows", rows, Integer.MAX_VALUE);
+                    checkSize("dimension", dimension, MAX_DIMENSION);
+                    if ((long) rows * dimension > MAX_MATRIX_VALUES) {
+                        throw new IOException("Shard of " + rows + " x " + dimension + " is too large");
+                    }
+                    matrix = new double[rows * dimension];
+                    for (int i = 0; i < matrix.length; i++) {
+                        matrix[i] = in.readDouble();
+                    }
+                    out.writeByte(OK);
+
+                } else if (command == QUERY) {
+                    if (rows == 0) {
+                        throw new IOException("QUERY sent before LOAD");
+                    }
+                    int count = in.readInt();
+                    checkSize("count", count, Integer.MAX_VALUE);
+                    if ((long) count * dimension > MAX_BATCH_VALUES) {
+                        throw new IOException("Batch of " + count + " queries is too large");
+                    }
+                    if (queries.length < count * dimension) {
+                        queries = new double[count * dimension];
+                    }
+                    for (int i = 0; i < count * dimension; i++) {
+                        queries[i] = in.readDouble();
+                    }
+                    for (int q = 0; q < count; q++) {
+                        int bestRow = -1;
+                        double bestScore = -Double.MAX_VALUE;
+                        int queryOffset = q * dimension;
+                        for (int row = 0; row < rows; row++) {
+                            double dot = SimilarityCalculator.dotProduct(queries, queryOffset, matrix, row * dimension, dimension);
+                            if (dot > bestScore) {
+                                bestScore = dot;
+                                bestRow = row;
+                            }
+                        }
+                        out.writeInt(bestRow);
+                        out.writeDouble(bestScore);
+                    }
+
+                } else {
+                    throw new IOException("Unknown command " + command);
+                }
+                out.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            System.out.println(ConsoleColour.RED_BOLD +
+                "Connection " + socket.getRemoteSocketAddress() + " closed: " + e.getMessage() +
+                ConsoleColour.RESET);
+        }
+    }
+
+    /**
+     * @throws IOException If the value read from the socket is not in [1, max].
+     */
+    private static void checkSize(String what, int value, int max) throws IOException {
+        if (value <= 0 || value > max) {
+            throw new IOException("Invalid " + what + ": " + value);
+        }
+    }
+}
@@ -7,6 +7,11 @@ package ie.atu.sw;
  * 
  * SimilarityCalculator provides methods to compute cosine similarity
  * between two embedding vectors.
+ * 
+ * When the same vectors are compared many times (e.g. every input word
+ * against a whole target vocabulary), it is cheaper to scale each vector
+ * to unit length once with unitScale; the cosine similarity of two unit
+ * vectors is then just their dotProduct.
  */
 public class SimilarityCalculator {
 	
@@ -45,4 +50,44 @@ public class SimilarityCalculator {
         return dotProduct / denominator;
     }
 
+    /**
+     * Works out the factor that scales a vector to unit length.
+     * 
+     * @param vector The vector.
+     * @param length How many of its values to use.
+     * @return 1 / (length of the vector), or 0.0 for an all-zero vector
+     *         (so, as in cosineSimilarity, it scores 0.0 against everything).
+     */
+
+    // Big O for unitScale = O(n)
+    public static double unitScale(double[] vector, int length) {
+        double norm = 0.0;
+        for (int i = 0; i < length; i++) {
+            norm += vector[i] * vector[i];
+        }
+        return norm == 0.0 ? 0.0 : 1.0 / Math.sqrt(norm);
+    }
+
+    /**
+     * Computes the dot product of two vectors stored inside larger arrays
+     * (e.g. one row of a packed matrix). For unit-length vectors this is
+     * their cosine similarity.
+     * 
+     * @param a       The array holding the first vector.
+     * @param aOffset Where the first vector starts in a.
+     * @param b       The array holding the second vector.
+     * @param bOffset Where the second vector starts in b.
+     * @param length  The number of values to multiply.
+     * @return The sum of a[aOffset + i] * b[bOffset + i].
+     */
+
+    // Big O for dotProduct = O(n)
+    public static double dotProduct(double[] a, int aOffset, double[] b, int bOffset, int length) {
+        double dot = 0.0;
+        for (int i = 0; i < length; i++) {
+            dot += a[aOffset + i] * b[bOffset + i];
+        }
+        return dot;
+    }
+
 }
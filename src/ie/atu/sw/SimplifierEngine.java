@@ -0,0 +1,461 @@
+package ie.atu.sw;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @author Peter Carroll
+ * @version 1.0
+ * @since 1.8
+ *
+ * SimplifierEngine is the reusable, in-memory text simplifier.
+ *
+ * It is built once from loaded data (the GloVE map and one or more target
+ * vocabularies) and never changes afterwards, so a single engine can be
+ * shared by any number of threads without locking. Callers can simplify:
+ * 1) A whole piece of text held in memory (simplify(CharSequence)),
+ * 2) A stream of text (simplify(Reader, Writer)),
+ * 3) A single token (simplifyToken).
+ *
+ * The only shared mutable state is each vocabulary's replacement cache,
+ * which is a concurrent map. Per-call working buffers come from a
+ * thread-local scratch area and are reused between calls on the same thread
+ * (any that grew very large are dropped again, see release).
+ *
+ * Tokens are handled exactly as TextSimplifier always has: lines are split
+ * on whitespace, punctuation is stripped, and capitalization is preserved.
+ */
+public class SimplifierEngine {
+
+    private static final int READ_BUFFER_SIZE = 8192;
+    private static final int MAX_RETAINED_CHARS = 64 * 1024;   // Larger buffers are dropped on release
+    private static final String LINE_SEPARATOR = System.lineSeparator();
+
+    private final Map<String, double[]> embeddings;
+    private final Map<String, TargetVocabulary> vocabularies;
+    private final TargetVocabulary defaultVocabulary;
+
+    // Working buffers, one set per thread
+    private final ThreadLocal<Scratch> scratch = new ThreadLocal<Scratch>() {
+        @Override
+        protected Scratch initialValue() {
+            return new Scratch();
+        }
+    };
+
+    /**
+     * Builds an engine from every vocabulary currently in the registry.
+     * Vocabularies registered afterwards are not seen by this engine.
+     * The first registered vocabulary becomes the default.
+     *
+     * @param registry A registry holding the GloVE map and at least one vocabulary.
+     * @throws IllegalArgumentException If the registry has no vocabularies.
+     */
+    public SimplifierEngine(VocabularyRegistry registry) {
+        if (registry.isEmpty()) {
+            throw new IllegalArgumentException("No target vocabularies registered.");
+        }
+        Map<String, TargetVocabulary> snapshot = new LinkedHashMap<>();
+        for (String name : registry.names()) {
+            snapshot.put(name, registry.get(name));
+        }
+        this.embeddings = registry.getEmbeddings();
+        this.vocabularies = Collections.unmodifiableMap(snapshot);
+        this.defaultVocabulary = snapshot.values().iterator().next();
+    }
+
+    /**
+     * Builds an engine with a single target vocabulary.
+     *
+     * @param embeddings A map of word -> vector (e.g., GloVE embeddings). It must not be modified afterwards.
+     * @param vocabulary The target vocabulary to simplify towards.
+     */
+    public SimplifierEngine(Map<String, double[]> embeddings, TargetVocabulary vocabulary) {
+        Map<String, TargetVocabulary> single = new LinkedHashMap<>();
+        single.put(vocabulary.getName(), vocabulary);
+        this.embeddings = Collections.unmodifiableMap(embeddings);
+        this.vocabularies = Collections.unmodifiableMap(single);
+        this.defaultVocabulary = vocabulary;
+    }
+
+    /**
+     * @return The names of the vocabularies this engine can simplify towards.
+     */
+    public Set<String> vocabularyNames() {
+        return vocabularies.keySet();
+    }
+
+    /**
+     * Simplify a piece of text towards the default vocabulary.
+     *
+     * @param text The text to simplify.
+     * @return The simplified text.
+     */
+    public String simplify(CharSequence text) {
+        return simplify(text, null);
+    }
+
+    /**
+     * Simplify a piece of text towards a named vocabulary. Each line is
+     * simplified on its own and the original line breaks are kept as they are.
+     *
+     * @param text           The text to simplify.
+     * @param vocabularyName The vocabulary to use, or null for the default.
+     * @return The simplified text.
+     * @throws IllegalArgumentException If no vocabulary has that name.
+     */
+
+    // Big O for simplify = O(T * cost of simplifyToken) where T is the total number of tokens
+    public String simplify(CharSequence text, String vocabularyName) {
+        TargetVocabulary vocabulary = vocabulary(vocabularyName);
+        Scratch s = acquire();
+        try {
+            StringBuilder out = new StringBuilder(text.length());
+            int length = text.length();
+            int lineStart = 0;
+            for (int i = 0; i < length; i++) {
+                char c = text.charAt(i);
+                if (c == '\n' || c == '\r') {
+                    simplifyLine(text, lineStart, i, vocabulary, s, out);
+                    out.append(c);
+                    // Keep "\r\n" together as one line break
+                    if (c == '\r' && i + 1 < length && text.charAt(i + 1) == '\n') {
+                        out.append('\n');
+                        i++;
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            simplifyLine(text, lineStart, length, vocabulary, s, out);
+            return out.toString();
+        } finally {
+            release(s);
+        }
+    }
+
+    /**
+     * Simplify everything read from a Reader towards the default vocabulary.
+     *
+     * @param in  Where the text is read from.
+     * @param out Where the simplified text is written to.
+     * @throws IOException If reading or writing fails.
+     */
+    public void simplify(Reader in, Writer out) throws IOException {
+        simplify(in, out, null);
+    }
+
+    /**
+     * Simplify everything read from a Reader towards a named vocabulary and write it
+     * to a Writer, one line at a time. Every output line ends with the system line
+     * separator, just like TextSimplifier.simplifyTextFile.
+     *
+     * Neither stream is closed; that is left to the caller.
+     *
+     * @param in             Where the text is read from.
+     * @param out            Where the simplified text is written to.
+     * @param vocabularyName The vocabulary to use, or null for the default.
+     * @throws IOException If reading or writing fails.
+     * @throws IllegalArgumentException If no vocabulary has that name.
+     */
+
+    // Big O for simplify = O(T * cost of simplifyToken) where T is the total number of tokens
+    public void simplify(Reader in, Writer out, String vocabularyName) throws IOException {
+        TargetVocabulary vocabulary = vocabulary(vocabularyName);
+        Scratch s = acquire();
+        try {
+            StringBuilder line = s.line;
+            line.setLength(0);
+            boolean pendingLine = false;    // true if there are characters since the last line break
+            boolean skipNewline = false;    // true if the last char was '\r' (so a following '\n' is part of it)
+
+            int read;
+            while ((read = in.read(s.readBuffer)) != -1) {
+                for (int i = 0; i < read; i++) {
+                    char c = s.readBuffer[i];
+                    if (skipNewline) {
+                        skipNewline = false;
+                        if (c == '\n') {
+                            continue;
+                        }
+                    }
+                    if (c == '\n' || c == '\r') {
+                        writeLine(line, vocabulary, s, out);
+                        pendingLine = false;
+                        skipNewline = (c == '\r');
+                    } else {
+                        line.append(c);
+                        pendingLine = true;
+                    }
+                }
+            }
+
+            // Last line without a line break at the end
+            if (pendingLine) {
+                writeLine(line, vocabulary, s, out);
+            }
+        } finally {
+            release(s);
+        }
+    }
+
+    /**
+     * Simplify a single token (e.g. "Hello,") towards the default vocabulary.
+     *
+     * @param token The original token.
+     * @return The simplified token, with punctuation removed.
+     */
+    public String simplifyToken(CharSequence token) {
+        return simplifyToken(token, null);
+    }
+
+    /**
+     * Simplify a single token towards a named vocabulary.
+     *
+     * @param token          The original token.
+     * @param vocabularyName The vocabulary to use, or null for the default.
+     * @return The simplified token, with punctuation removed.
+     * @throws IllegalArgumentException If no vocabulary has that name.
+     */
+    public String simplifyToken(CharSequence token, String vocabularyName) {
+        StringBuilder out = new StringBuilder(token.length());
+        simplifyToken(token, vocabularyName, out);
+        return out.toString();
+    }
+
+    /**
+     * Simplify a single token towards a named vocabulary and append the result
+     * to a caller-supplied buffer, so callers can reuse their own buffers.
+     *
+     * @param token          The original token.
+     * @param vocabularyName The vocabulary to use, or null for the default.
+     * @param out            The buffer the simplified token is appended to.
+     * @throws IllegalArgumentException If no vocabulary has that name.
+     */
+    public void simplifyToken(CharSequence token, String vocabularyName, StringBuilder out) {
+        TargetVocabulary vocabulary = vocabulary(vocabularyName);
+        Scratch s = acquire();
+        try {
+            appendSimplifiedToken(token, 0, token.length(), vocabulary, s, out);
+        } finally {
+            release(s);
+        }
+    }
+
+    /**
+     * Simplifies the line held in 'line', writes it followed by a line separator,
+     * then clears 'line' ready for the next one.
+     */
+    private void writeLine(StringBuilder line, TargetVocabulary vocabulary, Scratch s, Writer out) throws IOException {
+        StringBuilder simplified = s.output;
+        simplified.setLength(0);
+        simplifyLine(line, 0, line.length(), vocabulary, s, simplified);
+        simplified.append(LINE_SEPARATOR);
+
+        // Copy into a reusable char[] rather than creating a String for the Writer
+        int length = simplified.length();
+        if (s.writeBuffer.length < length) {
+            s.writeBuffer = new char[Math.max(length, s.writeBuffer.length * 2)];
+        }
+        simplified.getChars(0, length, s.writeBuffer, 0);
+        out.write(s.writeBuffer, 0, length);
+
+        line.setLength(0);
+    }
+
+    /**
+     * Simplifies one line of text (text[start, end)) and appends it to 'out'.
+     *
+     * This gives the same result as splitting the line with "\\s+", simplifying
+     * each token and joining them with single spaces: leading whitespace becomes
+     * a single space, trailing whitespace is dropped.
+     */
+
+    // Big O for simplifyLine = O(L * cost of simplifyToken) where L is the number of tokens on the line
+    private void simplifyLine(CharSequence text, int start, int end,
+                              TargetVocabulary vocabulary, Scratch s, StringBuilder out) {
+        int i = start;
+        boolean first = true;
+
+        // Leading whitespace gives an empty first token (so a single space in the output)
+        if (i < end && isWhitespace(text.charAt(i))) {
+            while (i < end && isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            first = (i == end);
+        }
+
+        while (i < end) {
+            int tokenStart = i;
+            while (i < end && !isWhitespace(text.charAt(i))) {
+                i++;
+            }
+            if (!first) {
+                out.append(' ');
+            }
+            appendSimplifiedToken(text, tokenStart, i, vocabulary, s, out);
+            first = false;
+
+            while (i < end && isWhitespace(text.charAt(i))) {
+                i++;
+            }
+        }
+    }
+
+    /**
+     * Simplify one token (text[start, end)) by removing punctuation,
+     * finding the closest match in the vocabulary using Cosine similarity
+     * and preserving the original capitalization.
+     */
+
+    // Big O for appendSimplifiedToken = O(G * n) on a cache miss, O(k) otherwise (k = token length)
+    private void appendSimplifiedToken(CharSequence text, int start, int end,
+                                       TargetVocabulary vocabulary, Scratch s, StringBuilder out) {
+        // 1) Strip punctuation, and build the lower-case lookup word alongside
+        StringBuilder cleaned = s.cleaned;
+        StringBuilder lower = s.lower;
+        cleaned.setLength(0);
+        lower.setLength(0);
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                cleaned.append(c);
+                lower.append(c);
+            } else if (c >= 'A' && c <= 'Z') {
+                cleaned.append(c);
+                lower.append((char) (c + ('a' - 'A')));
+            }
+        }
+        if (cleaned.length() == 0) {
+            // No alphabetic content, so nothing is written for this token
+            return;
+        }
+
+        String lookupWord = lower.toString();
+
+        // 2) If the word is already in the vocabulary, keep it
+        if (vocabulary.contains(lookupWord)) {
+            appendMatchingCapitalization(cleaned, lookupWord, out);
+            return;
+        }
+
+        // 3) If GloVE has no embedding, keep it as-is (but punctuation removed)
+        double[] vector = embeddings.get(lookupWord);
+        if (vector == null) {
+            out.append(cleaned);
+            return;
+        }
+
+        // 4) Find the single best match in the vocabulary
+        String bestMatch = vocabulary.findBestMatch(lookupWord, vector);
+        if (bestMatch != null) {
+            appendMatchingCapitalization(cleaned, bestMatch, out);
+        } else {
+            out.append(cleaned);
+        }
+    }
+
+    /**
+     * Appends the replacement using the capitalization style of the original:
+     * ALL CAPS stays ALL CAPS, Capitalized stays Capitalized, anything else is lower-case.
+     *
+     * @param original    The original word (letters a-z / A-Z only).
+     * @param replacement The new word (in lower-case).
+     * @param out         The buffer to append to.
+     */
+
+    // Big O for appendMatchingCapitalization = O(k) where k is length of word
+    private static void appendMatchingCapitalization(CharSequence original, String replacement, StringBuilder out) {
+        boolean anyLower = false;
+        boolean restUpper = false;
+        for (int i = 0; i < original.length(); i++) {
+            char c = original.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                anyLower = true;
+            } else if (i > 0) {
+                restUpper = true;
+            }
+        }
+
+        if (!anyLower) {
+            out.append(replacement.toUpperCase());
+        } else if (original.length() > 1 && !restUpper && Character.isUpperCase(original.charAt(0))) {
+            out.append(replacement.substring(0, 1).toUpperCase()).append(replacement, 1, replacement.length());
+        } else {
+            out.append(replacement);
+        }
+    }
+
+    /**
+     * Matches the "\\s" regular expression class: space, tab, newline,
+     * vertical tab, form feed and carriage return.
+     */
+    static boolean isWhitespace(int c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private TargetVocabulary vocabulary(String name) {
+        if (name == null) {
+            return defaultVocabulary;
+        }
+        TargetVocabulary vocabulary = vocabularies.get(name);
+        if (vocabulary == null) {
+            throw new IllegalArgumentException("Unknown vocabulary: " + name);
+        }
+        return vocabulary;
+    }
+
+    /**
+     * Takes this thread's scratch space. If it is already in use further up the
+     * call stack (a reentrant call, e.g. from inside a Writer), a fresh one is used instead.
+     */
+    private Scratch acquire() {
+        Scratch s = scratch.get();
+        if (s.inUse) {
+            s = new Scratch();
+        }
+        s.inUse = true;
+        return s;
+    }
+
+    /**
+     * Hands the scratch space back. A buffer that grew past MAX_RETAINED_CHARS
+     * (e.g. for one very long line) is swapped for a default sized one, so a
+     * single large request does not pin that memory to the thread for good.
+     */
+    private static void release(Scratch s) {
+        if (s.writeBuffer.length > MAX_RETAINED_CHARS) {
+            s.writeBuffer = new char[READ_BUFFER_SIZE];
+        }
+        if (s.line.capacity() > MAX_RETAINED_CHARS) {
+            s.line = new StringBuilder(256);
+        }
+        if (s.output.capacity() > MAX_RETAINED_CHARS) {
+            s.output = new StringBuilder(256);
+        }
+        if (s.cleaned.capacity() > MAX_RETAINED_CHARS) {
+            s.cleaned = new StringBuilder(32);
+        }
+        if (s.lower.capacity() > MAX_RETAINED_CHARS) {
+            s.lower = new StringBuilder(32);
+        }
+        s.inUse = false;
+    }
+
+    /**
+     * Per-thread working buffers.
+     */
+    private static final class Scratch {
+        boolean inUse;
+        final char[] readBuffer = new char[READ_BUFFER_SIZE];
+        char[] writeBuffer = new char[READ_BUFFER_SIZE];
+        StringBuilder line = new StringBuilder(256);
+        StringBuilder output = new StringBuilder(256);
+        StringBuilder cleaned = new StringBuilder(32);
+        StringBuilder lower = new StringBuilder(32);
+    }
+}
@@ -0,0 +1,196 @@
+package ie.atu.sw;
+
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * @author Peter Carroll
+ * @version 1.0
+ * @since 1.8
+ *
+ * SyntheticCorpus generates made-up test data at any scale:
+ * 1) A GloVE-format embeddings file (word, val1, val2, ..., valN),
+ * 2) A target word list (one word per line, like Google-1000),
+ * 3) Text whose word frequencies follow a Zipf distribution,
+ *    i.e. the word of rank r appears roughly in proportion to 1 / r^s.
+ *
+ * Words are letter-only ("aaa", "aab", ...) so they survive TextSimplifier's
+ * punctuation stripping. Word 0 is the most frequent, so the first N words
+ * make a sensible "most common words" target list.
+ * The same seed always gives the same data.
+ */
+public class SyntheticCorpus {
+
+    private static final int    WORDS_PER_LINE   = 12;
+    private static final double UNKNOWN_RATE     = 0.02;   // Share of tokens with no embedding
+    private static final double CAPITALISED_RATE = 0.10;
+    private static final double UPPER_CASE_RATE  = 0.01;
+    private static final double PUNCTUATION_RATE = 0.08;
+    private static final char[] PUNCTUATION      = {',', '.', ';', '!', '?'};
+
+    private final List<String> words;
+    private final double[] cumulative;      // Zipf CDF over word ranks
+    private final Random random;
+
+    /**
+     * @param wordCount    The number of distinct words in the vocabulary.
+     * @param zipfExponent The Zipf exponent s (1.0 is typical for English).
+     * @param seed         The random seed.
+     */
+
+    // Big O for the constructor = O(W) where W is wordCount
+    public SyntheticCorpus(int wordCount, double zipfExponent, long seed) {
+        this.random = new Random(seed);
+        this.words = new ArrayList<>(wordCount);
+        for (int i = 0; i < wordCount; i++) {
+            words.add(wordName(i));
+        }
+
+        this.cumulative = new double[wordCount];
+        double total = 0.0;
+        for (int rank = 0; rank < wordCount; rank++) {
+            total += 1.0 / Math.pow(rank + 1, zipfExponent);
+            cumulative[rank] = total;
+        }
+        for (int rank = 0; rank < wordCount; rank++) {
+            cumulative[rank] /= total;
+        }
+    }
+
+    /**
+     * @return All the words, most frequent first.
+     */
+    public List<String> getWords() {
+        return words;
+    }
+
+    /**
+     * Writes every word with a random embedding, in the comma-delimited
+     * format read by EmbeddingParser.
+     *
+     * @param filePath  Where to write the embeddings.
+     * @param dimension The number of values per embedding.
+     * @throws IOException If the file cannot be written.
+     */
+
+    // Big O for writeEmbeddings = O(W * dimension)
+    public void writeEmbeddings(String filePath, int dimension) throws IOException {
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(filePath))) {
+            for (String word : words) {
+                bw.write(word);
+                for (int i = 0; i < dimension; i++) {
+                    bw.write(", ");
+                    // Five decimal places, like the real GloVE files
+                    bw.write(Double.toString(Math.round(random.nextGaussian() * 0.5 * 1e5) / 1e5));
+                }
+                bw.newLine();
+            }
+        }
+    }
+
+    /**
+     * Writes the most frequent words, one per line, for use as a target vocabulary.
+     *
+     * @param filePath Where to write the list.
+     * @param count    How many words to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void writeWordList(String filePath, int count) throws IOException {
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(filePath))) {
+            for (int i = 0; i < Math.min(count, words.size()); i++) {
+                bw.write(words.get(i));
+                bw.newLine();
+            }
+        }
+    }
+
+    /**
+     * Generates text with Zipf-distributed words, some capitalization and punctuation,
+     * and a few words that have no embedding.
+     *
+     * @param tokenCount The number of tokens to generate.
+     * @return The text, WORDS_PER_LINE tokens per line.
+     */
+
+    // Big O for generateText = O(T * log W) where T is tokenCount
+    public String generateText(int tokenCount) {
+        return generateText(tokenCount, random);
+    }
+
+    /**
+     * Same as generateText(int), but draws from the given Random instead of the
+     * corpus's own. The corpus itself is not changed, so several threads can
+     * generate text at once as long as each has its own Random.
+     *
+     * @param tokenCount The number of tokens to generate.
+     * @param random     The random source to draw from.
+     * @return The text, WORDS_PER_LINE tokens per line.
+     */
+    public String generateText(int tokenCount, Random random) {
+        StringBuilder sb = new StringBuilder(tokenCount * 8);
+        for (int t = 0; t < tokenCount; t++) {
+            if (t > 0) {
+                sb.append(t % WORDS_PER_LINE == 0 ? '\n' : ' ');
+            }
+
+            String word;
+            if (random.nextDouble() < UNKNOWN_RATE) {
+                word = "zq" + wordName(random.nextInt(100000));   // No embedding for this one
+            } else {
+                word = words.get(sampleRank(random));
+            }
+
+            double style = random.nextDouble();
+            if (style < UPPER_CASE_RATE) {
+                sb.append(word.toUpperCase());
+            } else if (style < UPPER_CASE_RATE + CAPITALISED_RATE) {
+                sb.append(Character.toUpperCase(word.charAt(0))).append(word, 1, word.length());
+            } else {
+                sb.append(word);
+            }
+
+            if (random.nextDouble() < PUNCTUATION_RATE) {
+                sb.append(PUNCTUATION[random.nextInt(PUNCTUATION.length)]);
+            }
+        }
+        sb.append('\n');
+        return sb.toString();
+    }
+
+    /**
+     * Picks a word rank by binary search of the Zipf CDF.
+     */
+    private int sampleRank(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return Math.min(index, cumulative.length - 1);
+    }
+
+    /**
+     * Turns a number into a unique letter-only word of at least three letters:
+     * 0 -> "aaa", 1 -> "aab", ..., 17575 -> "zzz", 17576 -> "aaaa", ...
+     */
+    static String wordName(int index) {
+        int length = 3;
+        long block = 26 * 26 * 26;
+        long n = index;
+        while (n >= block) {
+            n -= block;
+            block *= 26;
+            length++;
+        }
+        char[] letters = new char[length];
+        for (int i = length - 1; i >= 0; i--) {
+            letters[i] = (char) ('a' + n % 26);
+            n /= 26;
+        }
+        return new String(letters);
+    }
+}
@@ -0,0 +1,164 @@
+package ie.atu.sw;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @author Peter Carroll
+ * @version 1.0
+ * @since 1.8
+ *
+ * TargetVocabulary is a named list of "simple" words (e.g. Google-1000,
+ * a children's word list, a legal glossary) that text is simplified towards.
+ *
+ * It keeps its own compact index of the target words:
+ * 1) The words themselves in a String[],
+ * 2) Their embeddings packed row-by-row into one double[] (pre-normalised,
+ *    so Cosine similarity becomes a plain dot product),
+ * 3) A cache of replacements that have already been worked out.
+ *
+ * The vectors are copied out of the subset map, so a vocabulary does not
+ * keep any reference to the shared GloVE map. Rows follow the subset map's
+ * iteration order (hash order for buildGoogleSubsetMap), which is the order
+ * the original loop over the map used, so ties break the same way.
+ */
+public class TargetVocabulary {
+
+    private final String name;
+    private final String[] words;                   // Target words, in the subset map's iteration order
+    private final double[] matrix;                  // words.length rows of 'dimension' values
+    private final int dimension;
+    private final Map<String, Integer> indexOf;     // word -> row in the matrix
+    private final Map<String, String> replacementCache = new ConcurrentHashMap<>();
+
+    /**
+     * Builds the compact index from a subset map, as produced by
+     * GoogleWordsManager.buildGoogleSubsetMap.
+     *
+     * @param name      The name callers use to pick this vocabulary.
+     * @param subsetMap A map of target word -> embedding vector.
+     */
+
+    // Big O for the constructor = O(G * n) where G is the number of target words and n the embedding dimension
+    public TargetVocabulary(String name, Map<String, double[]> subsetMap) {
+        this.name = name;
+        this.words = new String[subsetMap.size()];
+        this.indexOf = new HashMap<>();
+
+        int dim = 0;
+        for (double[] vector : subsetMap.values()) {
+            dim = Math.max(dim, vector.length);
+        }
+        this.dimension = dim;
+        this.matrix = new double[words.length * dim];
+
+        int row = 0;
+        for (Map.Entry<String, double[]> entry : subsetMap.entrySet()) {
+            words[row] = entry.getKey();
+            indexOf.put(entry.getKey(), row);
+
+            // Copy the vector into its row and scale it to unit length
+            double[] vector = entry.getValue();
+            double scale = SimilarityCalculator.unitScale(vector, vector.length);
+            int offset = row * dim;
+            for (int i = 0; i < vector.length; i++) {
+                matrix[offset + i] = vector[i] * scale;
+            }
+            row++;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int size() {
+        return words.length;
+    }
+
+    public int getDimension() {
+        return dimension;
+    }
+
+    /**
+     * @param word A lower-case word.
+     * @return true if the word is itself one of the target words.
+     */
+    public boolean contains(String word) {
+        return indexOf.containsKey(word);
+    }
+
+    /**
+     * Finds the target word closest to the given vector using Cosine similarity.
+     * The result is cached against the lookup word, so each distinct input word
+     * is only scored against the whole vocabulary once.
+     *
+     * @param lookupWord The lower-case word being replaced (used as the cache key).
+     * @param vector     The embedding of lookupWord.
+     * @return The best matching target word (lower-case), or null if the vocabulary is empty.
+     */
+
+    // Big O for findBestMatch = O(G * n) on a cache miss, O(1) on a cache hit
+    public String findBestMatch(String lookupWord, double[] vector) {
+        String cached = replacementCache.get(lookupWord);
+        if (cached != null) {
+            return cached;
+        }
+
+        String bestMatch = null;
+        double bestScore = -Double.MAX_VALUE;
+
+        // Normalise the query once; each row is already unit length,
+        // so the Cosine similarity is the scaled dot product
+        int length = Math.min(vector.length, dimension);
+        double scale = SimilarityCalculator.unitScale(vector, length);
+
+        for (int row = 0; row < words.length; row++) {
+            double score = SimilarityCalculator.dotProduct(vector, 0, matrix, row * dimension, length) * scale;
+            if (score > bestScore) {
+                bestScore = score;
+                bestMatch = words[row];
+            }
+        }
+
+        if (bestMatch != null) {
+            replacementCache.put(lookupWord, bestMatch);
+        }
+        return bestMatch;
+    }
+
+    /**
+     * @return The number of replacements currently held in the cache.
+     */
+    public int cachedReplacements() {
+        return replacementCache.size();
+    }
+
+    /**
+     * Stores a replacement worked out somewhere else (e.g. by ShardCoordinator),
+     * so later lookups for this word are served from the cache.
+     *
+     * @param lookupWord The lower-case word being replaced.
+     * @param match      The target word to replace it with.
+     */
+    void cacheReplacement(String lookupWord, String match) {
+        replacementCache.put(lookupWord, match);
+    }
+
+    boolean isCached(String lookupWord) {
+        return replacementCache.containsKey(lookupWord);
+    }
+
+    String wordAt(int row) {
+        return words[row];
+    }
+
+    /**
+     * @return A copy of rows [fromRow, toRow) of the normalised matrix, packed row-by-row.
+     */
+    double[] copyRows(int fromRow, int toRow) {
+        return Arrays.copyOfRange(matrix, fromRow * dimension, toRow * dimension);
+    }
+}
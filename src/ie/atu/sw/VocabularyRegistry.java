@@ -0,0 +1,86 @@
+package ie.atu.sw;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * @author Peter Carroll
+ * @version 1.0
+ * @since 1.8
+ *
+ * VocabularyRegistry holds one shared, read-only GloVE map and any number
+ * of named target vocabularies built against it.
+ *
+ * This lets one process serve several audiences (e.g. Google-1000,
+ * a children's word list, a legal glossary) while only keeping a single
+ * copy of the embeddings in memory. Each vocabulary keeps its own compact
+ * target index and replacement cache (see TargetVocabulary).
+ *
+ * The registry is safe to use from several threads: vocabularies can be
+ * registered while other threads look them up. A SimplifierEngine only
+ * sees the vocabularies registered before it was built.
+ */
+public class VocabularyRegistry {
+
+    private final Map<String, double[]> embeddings;                            // Shared GloVE map
+    private final Map<String, TargetVocabulary> vocabularies = new ConcurrentHashMap<>();
+    private final List<String> names = new CopyOnWriteArrayList<>();             // Registration order
+    private final GoogleWordsManager googleManager = new GoogleWordsManager();
+
+    /**
+     * @param embeddings The GloVE map (word -> vector) shared by every vocabulary.
+     */
+    public VocabularyRegistry(Map<String, double[]> embeddings) {
+        this.embeddings = Collections.unmodifiableMap(embeddings);
+    }
+
+    /**
+     * @return A read-only view of the shared GloVE map.
+     */
+    public Map<String, double[]> getEmbeddings() {
+        return embeddings;
+    }
+
+    /**
+     * Builds a target vocabulary from a word list and registers it under the given name,
+     * replacing any vocabulary previously registered with that name.
+     *
+     * @param name  The name callers use to pick this vocabulary.
+     * @param words The list of target words (already loaded, lower-case).
+     * @return The newly registered vocabulary.
+     */
+
+    // Big O for register = O(G * n) where G is number of words and n the embedding dimension
+    public TargetVocabulary register(String name, List<String> words) {
+        Map<String, double[]> subsetMap = googleManager.buildGoogleSubsetMap(embeddings, words);
+        TargetVocabulary vocabulary = new TargetVocabulary(name, subsetMap);
+
+        // Writers take turns so a name is never added to the order list twice
+        synchronized (names) {
+            if (vocabularies.put(name, vocabulary) == null) {
+                names.add(name);
+            }
+        }
+        return vocabulary;
+    }
+
+    /**
+     * @param name The name of a registered vocabulary.
+     * @return The vocabulary, or null if nothing is registered under that name.
+     */
+    public TargetVocabulary get(String name) {
+        return vocabularies.get(name);
+    }
+
+    /**
+     * @return The names of all registered vocabularies, in registration order.
+     */
+    public List<String> names() {
+        return Collections.unmodifiableList(names);
+    }
+
+    public boolean isEmpty() {
+        return names.isEmpty();
+    }
+}